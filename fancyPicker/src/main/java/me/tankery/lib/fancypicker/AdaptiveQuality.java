@@ -0,0 +1,205 @@
+package me.tankery.lib.fancypicker;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Adaptive rendering quality of a {@code FancyPickerLayout}, driven by the frame time measured
+ * while user is dragging an item.
+ *
+ * Frame time is measured with {@code Choreographer} frame callbacks posted on every vsync while
+ * tracking, so it only depends on how long the UI thread takes for a frame, not on how often
+ * touch input redraws the picker. A frame arriving later than the budget after the previous one
+ * means vsyncs were missed. {@code Choreographer} needs API 16, on older devices the quality
+ * stays at {@link #LEVEL_FULL}.
+ *
+ * When frames run over budget, the quality steps down level by level: first turn off dither,
+ * then simplify the label rendering, then shorten and finally skip the settle animation.
+ * It steps back up when frames recover.
+ *
+ * While dragging, the frame is mostly the seek bar of dragged item and the orbit: the item
+ * itself and its siblings are hidden. So the levels are not a relief for the drag frames they
+ * are measured on, but for what comes after them. Only the orbit dither of
+ * {@link #LEVEL_NO_DITHER} changes mid-drag, the items & labels of {@link #LEVEL_NO_DITHER} and
+ * {@link #LEVEL_SIMPLE_LABELS} apply once the items are shown again after release, and
+ * {@link #LEVEL_SHORT_ANIMATION} & {@link #LEVEL_NO_ANIMATION} apply to the settle animation
+ * right after release. Slow drag frames are taken as a sign of a loaded device, not as
+ * something the levels can speed up.
+ */
+public class AdaptiveQuality {
+
+    /**
+     * Full quality, all paints with anti-alias & dither, full settle animation.
+     */
+    public static final int LEVEL_FULL = 0;
+    /**
+     * Dither of item & orbit paints is turned off.
+     * Orbit changes at once, items after release as they are hidden while dragging.
+     */
+    public static final int LEVEL_NO_DITHER = 1;
+    /**
+     * Labels of items are drawn without anti-alias, after release as they are hidden while dragging.
+     */
+    public static final int LEVEL_SIMPLE_LABELS = 2;
+    /**
+     * Settle animation after tracking plays in half the duration.
+     */
+    public static final int LEVEL_SHORT_ANIMATION = 3;
+    /**
+     * Settle animation after tracking is skipped.
+     */
+    public static final int LEVEL_NO_ANIMATION = 4;
+
+    /**
+     * One and a half 60Hz vsync, a frame later than this missed at least one vsync.
+     */
+    private static final float DEFAULT_FRAME_BUDGET_MS = 1.5f * 1000f / 60;
+    private static final int DEFAULT_STEP_DOWN_FRAMES = 4;
+    private static final int DEFAULT_STEP_UP_FRAMES = 60;
+
+    /**
+     * Listener to report the current quality level.
+     */
+    public interface OnQualityLevelChangeListener {
+
+        public abstract void onQualityLevelChanged(int level);
+    }
+
+    private final FancyPickerLayout layout;
+
+    private long frameBudgetNanos = (long) (DEFAULT_FRAME_BUDGET_MS * 1000 * 1000);
+    private int stepDownFrames = DEFAULT_STEP_DOWN_FRAMES;
+    private int stepUpFrames = DEFAULT_STEP_UP_FRAMES;
+    private int maxLevel = LEVEL_NO_ANIMATION;
+
+    private int level = LEVEL_FULL;
+
+    private FrameWatcher frameWatcher;
+    private long lastFrameNanos;
+    private int slowFrames;
+    private int fastFrames;
+
+    private OnQualityLevelChangeListener onQualityLevelChangeListener;
+
+    AdaptiveQuality(FancyPickerLayout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Frame time above {@code budgetMs} is counted as a slow frame,
+     * default to one and a half frame of 60fps.
+     */
+    public void setFrameBudget(float budgetMs) {
+        frameBudgetNanos = (long) (budgetMs * 1000 * 1000);
+    }
+
+    /**
+     * Step down one level after {@code frames} slow frames in a row.
+     */
+    public void setStepDownFrames(int frames) {
+        stepDownFrames = Math.max(1, frames);
+    }
+
+    /**
+     * Step up one level after {@code frames} frames in budget in a row.
+     */
+    public void setStepUpFrames(int frames) {
+        stepUpFrames = Math.max(1, frames);
+    }
+
+    /**
+     * The lowest quality allowed, one of the {@code LEVEL_*} constants.
+     */
+    public void setMaxLevel(int maxLevel) {
+        this.maxLevel = Math.max(LEVEL_FULL, Math.min(LEVEL_NO_ANIMATION, maxLevel));
+        if (level > this.maxLevel)
+            setLevel(this.maxLevel);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setOnQualityLevelChangeListener(OnQualityLevelChangeListener listener) {
+        onQualityLevelChangeListener = listener;
+    }
+
+    void startTracking() {
+        stopTracking();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
+            return;
+
+        lastFrameNanos = 0;
+        slowFrames = 0;
+        fastFrames = 0;
+        if (frameWatcher == null)
+            frameWatcher = new FrameWatcher();
+        frameWatcher.start();
+    }
+
+    void stopTracking() {
+        if (frameWatcher != null)
+            frameWatcher.stop();
+    }
+
+    /**
+     * Count a frame, called by the frame watcher with the vsync time of each frame.
+     */
+    void onFrame(long frameTimeNanos) {
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            if (interval > frameBudgetNanos) {
+                fastFrames = 0;
+                if (++slowFrames >= stepDownFrames) {
+                    slowFrames = 0;
+                    if (level < maxLevel)
+                        setLevel(level + 1);
+                }
+            } else {
+                slowFrames = 0;
+                if (++fastFrames >= stepUpFrames) {
+                    fastFrames = 0;
+                    if (level > LEVEL_FULL)
+                        setLevel(level - 1);
+                }
+            }
+        }
+
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * Post a frame callback on every vsync until stopped.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class FrameWatcher implements Choreographer.FrameCallback {
+        private final Choreographer choreographer = Choreographer.getInstance();
+        private boolean running;
+
+        void start() {
+            running = true;
+            choreographer.postFrameCallback(this);
+        }
+
+        void stop() {
+            running = false;
+            choreographer.removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running)
+                return;
+            onFrame(frameTimeNanos);
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    private void setLevel(int level) {
+        this.level = level;
+        layout.applyQualityLevel(level);
+        if (onQualityLevelChangeListener != null)
+            onQualityLevelChangeListener.onQualityLevelChanged(level);
+    }
+}
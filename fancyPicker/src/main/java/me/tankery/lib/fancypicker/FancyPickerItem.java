@@ -7,7 +7,6 @@ import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.RectF;
 import android.support.annotation.NonNull;
 import android.util.AttributeSet;
@@ -18,6 +17,7 @@ import android.widget.TextView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import me.tankery.lib.circularseekbar.CircularSeekBar;
 
@@ -109,6 +109,20 @@ public class FancyPickerItem extends TextView implements
      * progress when touch down
      */
     private float touchStartProgress;
+    /**
+     * progress changed by constraints of layout, but layout not recalculated yet.
+     */
+    private boolean constrainedLayoutPending;
+    /**
+     * Ignore the progress callback of seek bar while we are setting it.
+     */
+    private boolean ignoreSeekBarProgress;
+
+    /**
+     * Rendering quality, one of {@code AdaptiveQuality.LEVEL_*}.
+     * This value will set by {@code FancyPickerLayout}
+     */
+    private int qualityLevel = AdaptiveQuality.LEVEL_FULL;
 
 
     /**
@@ -117,9 +131,12 @@ public class FancyPickerItem extends TextView implements
     private Paint itemBasePaint = new Paint();
 
     /**
-     * {@code Path} used to draw the static item value.
+     * Start & sweep angle of the arc used to draw the static item value.
+     * Drawn with {@code Canvas.drawArc} on {@code circlePathRect}, so no {@code Path} need to be
+     * rebuilt (and re-tessellated by hardware renderer) on each layout.
      */
-    private Path itemBasePath = new Path();
+    private float itemBaseStartAngle;
+    private float itemBaseSweepAngle;
 
     private RectF circlePathRect = new RectF();
 
@@ -156,6 +173,17 @@ public class FancyPickerItem extends TextView implements
         return onChangeListeners.contains(listener);
     }
 
+    /**
+     * Subscribe the progress of this item on {@code executor}, with latest-value conflation.
+     * Use this instead of {@link OnFancyPickerItemChangeListener} for heavy consumers.
+     * @return the stream, call {@link ProgressStream#cancel()} on the UI thread to unsubscribe.
+     */
+    public ProgressStream subscribeProgress(Executor executor, ProgressStream.OnProgressListener listener) {
+        ProgressStream stream = new ProgressStream(executor, listener);
+        stream.attach(this);
+        return stream;
+    }
+
     /**
      * Get & set the progress of item.
      */
@@ -171,6 +199,73 @@ public class FancyPickerItem extends TextView implements
         }
     }
 
+    /**
+     * Set progress decided by the constraints of {@code FancyPickerLayout}.
+     * Listeners are not notified until {@link #notifyConstrainedProgress()}, so the layout can
+     * set all siblings first. Layout is not recalculated until {@link #applyConstrainedProgress()},
+     * so a drag only redraws siblings once.
+     * @return true if the progress is changed.
+     */
+    boolean setConstrainedProgress(float progress) {
+        if (this.progress == progress)
+            return false;
+
+        this.progress = progress;
+        constrainedLayoutPending = true;
+        return true;
+    }
+
+    void notifyConstrainedProgress() {
+        for (OnFancyPickerItemChangeListener listener : onChangeListeners)
+            listener.onProgressChanged(this, this.progress, false);
+    }
+
+    /**
+     * Restore a saved progress: jump to it without rotate animation, as it's not a change
+     * made by user. Listeners are notified once, with {@code fromUser} false.
+     */
+    void restoreProgress(float progress) {
+        if (this.progress == progress)
+            return;
+
+        this.progress = progress;
+        touchStartProgress = progress;
+        recalculateLayoutSilently();
+        for (OnFancyPickerItemChangeListener listener : onChangeListeners)
+            listener.onProgressChanged(this, this.progress, false);
+    }
+
+    void applyConstrainedProgress() {
+        if (!constrainedLayoutPending)
+            return;
+
+        constrainedLayoutPending = false;
+        // Not touched by user, just jump to the new position without rotate animation.
+        touchStartProgress = progress;
+        // Listeners already got this value from notifyConstrainedProgress().
+        recalculateLayoutSilently();
+    }
+
+    /**
+     * Set progress of seek bar without its callback coming back to our listeners.
+     */
+    private void setSeekBarProgressSilently(float progress) {
+        ignoreSeekBarProgress = true;
+        try {
+            circularSeekBar.setProgress(progress);
+        } finally {
+            ignoreSeekBarProgress = false;
+        }
+    }
+
+    void setQualityLevel(int qualityLevel) {
+        if (this.qualityLevel != qualityLevel) {
+            this.qualityLevel = qualityLevel;
+            initPaints();
+            invalidate();
+        }
+    }
+
     public void setGeometry(float startAngle, float endAngle, float strokeWidth) {
         this.startAngle = startAngle;
         this.endAngle = endAngle;
@@ -194,7 +289,7 @@ public class FancyPickerItem extends TextView implements
         initCircularSeekBar();
 
         initPaints();
-        initPaths();
+        initArcs();
 
         setWillNotDraw(false);
         setGravity(Gravity.CENTER);
@@ -243,7 +338,7 @@ public class FancyPickerItem extends TextView implements
     private void initPaints() {
         itemBasePaint.reset();
         itemBasePaint.setAntiAlias(true);
-        itemBasePaint.setDither(true);
+        itemBasePaint.setDither(qualityLevel < AdaptiveQuality.LEVEL_NO_DITHER);
         itemBasePaint.setColor(itemBaseColor);
         itemBasePaint.setStrokeWidth(strokeWidth);
         itemBasePaint.setStyle(Paint.Style.STROKE);
@@ -251,10 +346,9 @@ public class FancyPickerItem extends TextView implements
         itemBasePaint.setStrokeCap(Paint.Cap.BUTT);
     }
 
-    private void initPaths() {
-        itemBasePath.reset();
-        float diff = normalizeAngle(endAngle - startAngle);
-        itemBasePath.addArc(circlePathRect, startAngle, diff);
+    private void initArcs() {
+        itemBaseStartAngle = startAngle;
+        itemBaseSweepAngle = normalizeAngle(endAngle - startAngle);
 
         updateItemCenter();
     }
@@ -269,13 +363,17 @@ public class FancyPickerItem extends TextView implements
         float diff = normalizeAngle(endAngle - startAngle);
         circularSeekBar.setPointerAngle(diff);
 
-        if ((progress - touchStartProgress) % 360 != 0) {
+        if ((progress - touchStartProgress) % 360 != 0 &&
+                qualityLevel < AdaptiveQuality.LEVEL_NO_ANIMATION) {
 
             float targetStart = getAnimatableProgressBarTargetStartAngle();
             float currentStart = circularSeekBar.getStartAngle();
 
             ValueAnimator rotate = ValueAnimator.ofFloat(currentStart, targetStart);
-            rotate.setDuration(getResources().getInteger(R.integer.progress_bar_end_animation));
+            int duration = getResources().getInteger(R.integer.progress_bar_end_animation);
+            if (qualityLevel >= AdaptiveQuality.LEVEL_SHORT_ANIMATION)
+                duration /= 2;
+            rotate.setDuration(duration);
             rotate.setInterpolator(new AccelerateDecelerateInterpolator());
             rotate.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
                 @Override
@@ -376,10 +474,22 @@ public class FancyPickerItem extends TextView implements
     private void recalculateLayout() {
         updateCircularSeekBar();
         initPaints();
-        initPaths();
+        initArcs();
         invalidate();
     }
 
+    /**
+     * Recalculate layout without the seek bar calling back with the progress we give it.
+     */
+    private void recalculateLayoutSilently() {
+        ignoreSeekBarProgress = true;
+        try {
+            recalculateLayout();
+        } finally {
+            ignoreSeekBarProgress = false;
+        }
+    }
+
     public void updateItemCenter() {
         float crossAngle = normalizeAngle(endAngle - startAngle);
         float centerAngle = normalizeAngle(0.5f * crossAngle + startAngle);
@@ -403,7 +513,7 @@ public class FancyPickerItem extends TextView implements
         super.onLayout(changed, left, top, right, bottom);
 
         circlePathRect.set(circularSeekBar.getPathCircle());
-        initPaths();
+        initArcs();
         invalidate();
     }
 
@@ -416,7 +526,7 @@ public class FancyPickerItem extends TextView implements
         canvas.save();
         canvas.translate(this.getWidth() / 2, this.getHeight() / 2);
 
-        canvas.drawPath(itemBasePath, itemBasePaint);
+        canvas.drawArc(circlePathRect, itemBaseStartAngle, itemBaseSweepAngle, false, itemBasePaint);
 
         float[] xy = itemCenterPos;
         float ts = getTextSize();
@@ -424,6 +534,7 @@ public class FancyPickerItem extends TextView implements
         paint.setColor(getCurrentTextColor());
         paint.setTextSize(getTextSize());
         paint.setTextAlign(Paint.Align.CENTER);
+        paint.setAntiAlias(qualityLevel < AdaptiveQuality.LEVEL_SIMPLE_LABELS);
         canvas.drawText(getText(), 0, getText().length(), xy[0], xy[1] + ts/2, paint);
 
         canvas.restore();
@@ -432,7 +543,23 @@ public class FancyPickerItem extends TextView implements
 
     @Override
     public void onProgressChanged(CircularSeekBar circularSeekBar, float progress, boolean fromUser) {
+        if (ignoreSeekBarProgress)
+            return;
+
+        FancyPickerLayout layout = (fromUser && getParent() instanceof FancyPickerLayout) ?
+                (FancyPickerLayout) getParent() : null;
+        if (layout != null) {
+            // Apply constraints of layout first, so listeners only see the constrained value.
+            float constrained = layout.constrainProgress(this, progress);
+            if (constrained != progress) {
+                setSeekBarProgressSilently(constrained);
+                progress = constrained;
+            }
+        }
+
         this.progress = progress;
+        if (layout != null)
+            layout.applyConstrainedSiblings(this);
         for (OnFancyPickerItemChangeListener listener : onChangeListeners)
             listener.onProgressChanged(this, this.progress, fromUser);
     }
@@ -466,6 +593,17 @@ public class FancyPickerItem extends TextView implements
         invalidate();
     }
 
+    /**
+     * Hide the circular seek bar enabled by {@link #enableCircularSeekBar()} when the touch
+     * didn't start tracking, so it won't take touches from other views.
+     */
+    void disableCircularSeekBar() {
+        removeCallbacks(hideCircularSeekBarRunnable);
+        circularSeekBar.setVisibility(INVISIBLE);
+        circularSeekBar.setEnabled(false);
+        invalidate();
+    }
+
     public boolean touchInRange(MotionEvent event) {
 
         // Convert coordinates to our internal coordinate system
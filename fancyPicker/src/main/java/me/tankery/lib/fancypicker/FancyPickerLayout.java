@@ -1,18 +1,25 @@
 package me.tankery.lib.fancypicker;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.RectF;
+import android.os.Build;
 import android.support.annotation.NonNull;
 import android.util.AttributeSet;
+import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
 
+import java.util.concurrent.Executor;
+
+import me.tankery.lib.circularseekbar.CircularSeekBar;
+
 /**
  * Created by tankery on 6/18/15.
  */
@@ -35,6 +42,11 @@ public class FancyPickerLayout extends FrameLayout implements
     private static final float DEFAULT_END_ANGLE = 270f;
     private static final float DEFAULT_ORBIT_STROKE_WIDTH = 56;
 
+    /**
+     * Gravity of non-ring children without gravity, same as {@code FrameLayout}.
+     */
+    private static final int DEFAULT_CHILD_GRAVITY = Gravity.TOP | Gravity.START;
+
 
     /**
      * Holds the color value for {@code orbitBaseColor} before the {@code Paint} instance is created.
@@ -61,16 +73,43 @@ public class FancyPickerLayout extends FrameLayout implements
     private Paint orbitBasePaint = new Paint();
 
     /**
-     * {@code Path} used to draw the orbit circle.
+     * Bounds of the orbit circle, drawn with {@code Canvas.drawOval}.
      */
-    private Path orbitBasePath = new Path();
-
     private RectF circlePathRect = new RectF();
 
 
     int[] fancyItemIndexes;
     int fancyItemCount;
 
+    private static final int NO_CAPTURE = -1;
+
+    /**
+     * Index (in {@code fancyItemIndexes}) of the item which captured current gesture,
+     * or {@code NO_CAPTURE} if no gesture is captured.
+     */
+    private int capturedItemIndex = NO_CAPTURE;
+    private final Matrix inverseMatrix = new Matrix();
+
+    /**
+     * Measure spec last used for the ring children (items & their seek bars).
+     */
+    private int lastRingMeasureSpec;
+
+    /**
+     * Constraints between item values, siblings are rebalanced on each drag event.
+     */
+    private final ProgressConstraints constraints = new ProgressConstraints();
+    private FancyPickerItem[] balanceItems = new FancyPickerItem[0];
+    private float[] balanceValues = new float[0];
+    private boolean[] balanceChanged = new boolean[0];
+    private boolean balancePending;
+
+    /**
+     * Rendering quality driven by frame time, null if not enabled.
+     */
+    private AdaptiveQuality adaptiveQuality;
+    private int qualityLevel = AdaptiveQuality.LEVEL_FULL;
+
     public FancyPickerLayout(Context context) {
         super(context);
         init(null, 0);
@@ -96,6 +135,131 @@ public class FancyPickerLayout extends FrameLayout implements
         setWillNotDraw(false);
     }
 
+    /**
+     * Subscribe the progress of all items in this layout on {@code executor},
+     * with latest-value conflation for each item.
+     * @return the stream, call {@link ProgressStream#cancel()} on the UI thread to unsubscribe.
+     */
+    public ProgressStream subscribeProgress(Executor executor, ProgressStream.OnProgressListener listener) {
+        ProgressStream stream = new ProgressStream(executor, listener);
+        for (FancyPickerItem item : collectPickerItems()) {
+            stream.attach(item);
+        }
+        return stream;
+    }
+
+    /**
+     * Keep the sum of all item values to {@code sum}. When user drags an item,
+     * the unlocked siblings are rebalanced to keep the sum.
+     */
+    public void setSumConstraint(float sum) {
+        constraints.setSum(sum);
+    }
+
+    public void clearSumConstraint() {
+        constraints.clearSum();
+    }
+
+    /**
+     * Limit the value of {@code item} in {@code min} ~ {@code max}, within -100 ~ 100.
+     * The part of range out of -100 ~ 100 is cut off.
+     * @throws IllegalArgumentException if min is larger than max, or range is all out of -100 ~ 100.
+     */
+    public void setItemRangeConstraint(FancyPickerItem item, float min, float max) {
+        constraints.setRange(item, min, max);
+    }
+
+    /**
+     * Locked item will not be changed when rebalancing siblings, but user can still drag it.
+     */
+    public void setItemLocked(FancyPickerItem item, boolean locked) {
+        constraints.setLocked(item, locked);
+    }
+
+    public void clearConstraints() {
+        constraints.clear();
+    }
+
+    /**
+     * Enable to lower the rendering quality when frames run over budget while dragging,
+     * and raise it back when frames recover. Disable to restore full quality.
+     */
+    public void setAdaptiveQualityEnabled(boolean enabled) {
+        if (enabled == (adaptiveQuality != null))
+            return;
+
+        if (enabled) {
+            adaptiveQuality = new AdaptiveQuality(this);
+        } else {
+            adaptiveQuality.stopTracking();
+            adaptiveQuality = null;
+            applyQualityLevel(AdaptiveQuality.LEVEL_FULL);
+        }
+    }
+
+    /**
+     * Get the adaptive quality to configure its rules & listener, null if not enabled.
+     */
+    public AdaptiveQuality getAdaptiveQuality() {
+        return adaptiveQuality;
+    }
+
+    void applyQualityLevel(int level) {
+        qualityLevel = level;
+        initPaints();
+        invalidate();
+
+        for (int i = 0; i < fancyItemCount; i++) {
+            int pos = fancyItemIndexes[i];
+            FancyPickerItem item = (FancyPickerItem) getChildAt(pos);
+            item.setQualityLevel(level);
+        }
+    }
+
+    /**
+     * Get the count of {@code FancyPickerItem} in this layout.
+     * Unlike {@code fancyItemCount}, this is also valid before attached to window.
+     */
+    public int getPickerItemCount() {
+        int count = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            if (getChildAt(i) instanceof FancyPickerItem)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the {@code FancyPickerItem} at {@code index}, in the order of they added to layout.
+     */
+    public FancyPickerItem getPickerItem(int index) {
+        int itemIndex = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child instanceof FancyPickerItem) {
+                if (itemIndex == index)
+                    return (FancyPickerItem) child;
+                itemIndex++;
+            }
+        }
+        throw new IndexOutOfBoundsException("No FancyPickerItem at index " + index);
+    }
+
+    /**
+     * Collect all {@code FancyPickerItem} in order without walking children for each item.
+     * Also valid before attached to window, unlike {@code fancyItemIndexes}.
+     */
+    FancyPickerItem[] collectPickerItems() {
+        FancyPickerItem[] items = new FancyPickerItem[getPickerItemCount()];
+        int itemIndex = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child instanceof FancyPickerItem)
+                items[itemIndex++] = (FancyPickerItem) child;
+        }
+        return items;
+    }
+
     @Override
     protected void finalize() throws Throwable {
         super.finalize();
@@ -121,7 +285,7 @@ public class FancyPickerLayout extends FrameLayout implements
     private void initPaints() {
         orbitBasePaint.reset();
         orbitBasePaint.setAntiAlias(true);
-        orbitBasePaint.setDither(true);
+        orbitBasePaint.setDither(qualityLevel < AdaptiveQuality.LEVEL_NO_DITHER);
         orbitBasePaint.setColor(orbitBaseColor);
         orbitBasePaint.setStrokeWidth(orbitStrokeWidth);
         orbitBasePaint.setStyle(Paint.Style.STROKE);
@@ -129,11 +293,6 @@ public class FancyPickerLayout extends FrameLayout implements
         orbitBasePaint.setStrokeCap(Paint.Cap.BUTT);
     }
 
-    private void initPaths() {
-        orbitBasePath.reset();
-        orbitBasePath.addArc(circlePathRect, startAngle, 360);
-    }
-
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
@@ -146,15 +305,136 @@ public class FancyPickerLayout extends FrameLayout implements
             if (child instanceof FancyPickerItem) {
                 fancyItemIndexes[fancyItemCount] = i;
                 fancyItemCount++;
-                addView(((FancyPickerItem) child).getCircularSeekBar(), i + 1);
+                ((FancyPickerItem) child).setQualityLevel(qualityLevel);
+                addView(((FancyPickerItem) child).getCircularSeekBar(), i + 1,
+                        new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+            }
+        }
+
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (adaptiveQuality != null)
+            adaptiveQuality.stopTracking();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * All items and their seek bars share the same square ring bounds, so we work out the ring
+     * size once and give it to every ring child as an exact size, instead of letting
+     * {@code FrameLayout} measure 2N full-size children one by one.
+     * The ring also takes part in our own size, like the seek bar does with equal circle: a square
+     * of the available size, UNSPECIFIED dimension falls back to the other one.
+     * Other children (e.g. a center label) are measured the same way {@code FrameLayout} does.
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int count = getChildCount();
+        // Same as FrameLayout, match parent children measured with exact parent specs
+        // already have their final size.
+        boolean measureMatchParentChildren =
+                MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY ||
+                MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.EXACTLY;
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int verticalPadding = getPaddingTop() + getPaddingBottom();
+
+        int ringSize = getRingSize(widthMeasureSpec, heightMeasureSpec);
+        int maxWidth = ringSize;
+        int maxHeight = ringSize;
+        int childState = 0;
+
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE || isRingChild(child))
+                continue;
+
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
+            LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+            maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+            childState = combineMeasuredStates(childState, child.getMeasuredState());
+        }
+
+        maxWidth += horizontalPadding;
+        maxHeight += verticalPadding;
+
+        maxWidth = Math.max(maxWidth, getSuggestedMinimumWidth());
+        maxHeight = Math.max(maxHeight, getSuggestedMinimumHeight());
+
+        setMeasuredDimension(resolveSizeAndState(maxWidth, widthMeasureSpec, childState),
+                resolveSizeAndState(maxHeight, heightMeasureSpec,
+                        childState << MEASURED_HEIGHT_STATE_SHIFT));
+
+        int innerWidth = Math.max(0, getMeasuredWidth() - horizontalPadding);
+        int innerHeight = Math.max(0, getMeasuredHeight() - verticalPadding);
+
+        // Final ring is the largest square fits in us, ring children are centered, see onLayout.
+        int ringSpec = MeasureSpec.makeMeasureSpec(Math.min(innerWidth, innerHeight), MeasureSpec.EXACTLY);
+        boolean ringSpecChanged = ringSpec != lastRingMeasureSpec;
+        lastRingMeasureSpec = ringSpec;
+
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE)
+                continue;
+
+            if (isRingChild(child)) {
+                // Skip the ring children already measured with the same ring and nothing changed.
+                if (!ringSpecChanged && !child.isLayoutRequested() && child.getMeasuredWidth() != 0)
+                    continue;
+                child.measure(ringSpec, ringSpec);
+            } else if (measureMatchParentChildren) {
+                // Same as FrameLayout, match parent children take the final size of us.
+                LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                if (lp.width == LayoutParams.MATCH_PARENT || lp.height == LayoutParams.MATCH_PARENT) {
+                    int childWidthSpec = lp.width == LayoutParams.MATCH_PARENT ?
+                            MeasureSpec.makeMeasureSpec(Math.max(0, innerWidth - lp.leftMargin - lp.rightMargin), MeasureSpec.EXACTLY) :
+                            getChildMeasureSpec(widthMeasureSpec,
+                                    horizontalPadding + lp.leftMargin + lp.rightMargin, lp.width);
+                    int childHeightSpec = lp.height == LayoutParams.MATCH_PARENT ?
+                            MeasureSpec.makeMeasureSpec(Math.max(0, innerHeight - lp.topMargin - lp.bottomMargin), MeasureSpec.EXACTLY) :
+                            getChildMeasureSpec(heightMeasureSpec,
+                                    verticalPadding + lp.topMargin + lp.bottomMargin, lp.height);
+                    child.measure(childWidthSpec, childHeightSpec);
+                }
             }
         }
+    }
+
+    /**
+     * Size of the square ring for the measure specs, without padding.
+     */
+    private int getRingSize(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int availableWidth = MeasureSpec.getSize(widthMeasureSpec) - getPaddingLeft() - getPaddingRight();
+        int availableHeight = MeasureSpec.getSize(heightMeasureSpec) - getPaddingTop() - getPaddingBottom();
+
+        int ringSize;
+        if (widthMode == MeasureSpec.UNSPECIFIED && heightMode == MeasureSpec.UNSPECIFIED) {
+            ringSize = 0;
+        } else if (widthMode == MeasureSpec.UNSPECIFIED) {
+            ringSize = availableHeight;
+        } else if (heightMode == MeasureSpec.UNSPECIFIED) {
+            ringSize = availableWidth;
+        } else {
+            ringSize = Math.min(availableWidth, availableHeight);
+        }
 
+        return Math.max(0, ringSize);
+    }
+
+    /**
+     * Items and their circular seek bars are all drawn on the same ring bounds.
+     */
+    private boolean isRingChild(View child) {
+        return child instanceof FancyPickerItem || child instanceof CircularSeekBar;
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        super.onLayout(changed, l, t, r, b);
+        layoutChildren(r - l, b - t);
 
         float rangeAngle = endAngle - startAngle;
         if (rangeAngle > 360) rangeAngle -= 360;
@@ -176,8 +456,74 @@ public class FancyPickerLayout extends FrameLayout implements
             if (!item.hasOnFancyPickerItemChangeListener(this))
                 item.addOnFancyPickerItemChangeListener(this);
         }
+    }
+
+    /**
+     * Same as {@code FrameLayout}, except that ring children are always centered in the padded
+     * area, whatever the gravity in their layout params, so they share the center of the orbit.
+     */
+    private void layoutChildren(int width, int height) {
+        int parentLeft = getPaddingLeft();
+        int parentRight = width - getPaddingRight();
+        int parentTop = getPaddingTop();
+        int parentBottom = height - getPaddingBottom();
 
-        initPaths();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE)
+                continue;
+
+            int childWidth = child.getMeasuredWidth();
+            int childHeight = child.getMeasuredHeight();
+            int childLeft;
+            int childTop;
+
+            if (isRingChild(child)) {
+                childLeft = parentLeft + (parentRight - parentLeft - childWidth) / 2;
+                childTop = parentTop + (parentBottom - parentTop - childHeight) / 2;
+            } else {
+                LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                int gravity = lp.gravity == -1 ? DEFAULT_CHILD_GRAVITY : lp.gravity;
+                int absoluteGravity = getAbsoluteGravity(gravity);
+
+                switch (absoluteGravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+                    case Gravity.CENTER_HORIZONTAL:
+                        childLeft = parentLeft + (parentRight - parentLeft - childWidth) / 2 +
+                                lp.leftMargin - lp.rightMargin;
+                        break;
+                    case Gravity.RIGHT:
+                        childLeft = parentRight - childWidth - lp.rightMargin;
+                        break;
+                    default:
+                        childLeft = parentLeft + lp.leftMargin;
+                }
+
+                switch (gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+                    case Gravity.CENTER_VERTICAL:
+                        childTop = parentTop + (parentBottom - parentTop - childHeight) / 2 +
+                                lp.topMargin - lp.bottomMargin;
+                        break;
+                    case Gravity.BOTTOM:
+                        childTop = parentBottom - childHeight - lp.bottomMargin;
+                        break;
+                    default:
+                        childTop = parentTop + lp.topMargin;
+                }
+            }
+
+            child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+        }
+    }
+
+    /**
+     * Resolve start/end with our layout direction, which is only known since API 17.
+     * Before that start/end already carry the left/right bits, so they work as left to right.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private int getAbsoluteGravity(int gravity) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1)
+            return gravity;
+        return Gravity.getAbsoluteGravity(gravity, getLayoutDirection());
     }
 
     @Override
@@ -185,34 +531,156 @@ public class FancyPickerLayout extends FrameLayout implements
         canvas.save();
         canvas.translate(this.getWidth() / 2, this.getHeight() / 2);
 
-        canvas.drawPath(orbitBasePath, orbitBasePaint);
+        canvas.drawOval(circlePathRect, orbitBasePaint);
         canvas.restore();
     }
 
     @Override
     public boolean dispatchTouchEvent(@NonNull MotionEvent event) {
 
-        if (event.getAction() == MotionEvent.ACTION_DOWN) {
+        int action = event.getActionMasked();
+
+        if (action == MotionEvent.ACTION_DOWN) {
+            capturedItemIndex = NO_CAPTURE;
             for (int i = 0; i < fancyItemCount; i++) {
                 int pos = fancyItemIndexes[i];
                 FancyPickerItem item = (FancyPickerItem) getChildAt(pos);
 
-                if (item.touchInRange(event)) {
+                // Item may not be on our origin, convert to its coordinate system.
+                float offsetX = getScrollX() - item.getLeft();
+                float offsetY = getScrollY() - item.getTop();
+                event.offsetLocation(offsetX, offsetY);
+                boolean inRange = item.touchInRange(event);
+                event.offsetLocation(-offsetX, -offsetY);
+
+                if (inRange) {
                     // Touch inside the item, enable circular seek bar.
                     item.enableCircularSeekBar();
+                    if (capturedItemIndex == NO_CAPTURE)
+                        capturedItemIndex = i;
                 }
             }
         }
 
-        return super.dispatchTouchEvent(event);
+        if (capturedItemIndex == NO_CAPTURE) {
+            return super.dispatchTouchEvent(event);
+        }
+
+        // An item is hit, route the rest of gesture to its seek bar directly,
+        // so we don't need to walk through all children for each event.
+        boolean handled = dispatchToCapturedItem(event);
+
+        if (action == MotionEvent.ACTION_DOWN && !handled) {
+            // Seek bar declines the touch, hide it and let FrameLayout offer the touch
+            // to other children, as if no item is hit.
+            int pos = fancyItemIndexes[capturedItemIndex];
+            ((FancyPickerItem) getChildAt(pos)).disableCircularSeekBar();
+            capturedItemIndex = NO_CAPTURE;
+            return super.dispatchTouchEvent(event);
+        }
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            capturedItemIndex = NO_CAPTURE;
+        }
+
+        return handled;
+    }
+
+    private boolean dispatchToCapturedItem(MotionEvent event) {
+        int pos = fancyItemIndexes[capturedItemIndex];
+        FancyPickerItem item = (FancyPickerItem) getChildAt(pos);
+        CircularSeekBar seekBar = item.getCircularSeekBar();
+
+        // Convert to the child coordinate system, as FrameLayout does.
+        float offsetX = getScrollX() - seekBar.getLeft();
+        float offsetY = getScrollY() - seekBar.getTop();
+
+        Matrix matrix = seekBar.getMatrix();
+        if (matrix.isIdentity()) {
+            event.offsetLocation(offsetX, offsetY);
+            boolean handled = seekBar.dispatchTouchEvent(event);
+            event.offsetLocation(-offsetX, -offsetY);
+            return handled;
+        }
+
+        // Seek bar is transformed (e.g. scaled by an animation), map the touch
+        // through the inverse of its matrix on a copy of the event.
+        MotionEvent transformedEvent = MotionEvent.obtain(event);
+        transformedEvent.offsetLocation(offsetX, offsetY);
+        matrix.invert(inverseMatrix);
+        transformedEvent.transform(inverseMatrix);
+        boolean handled = seekBar.dispatchTouchEvent(transformedEvent);
+        transformedEvent.recycle();
+
+        return handled;
     }
 
     @Override
     public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
     }
 
+    /**
+     * Rebalance all items for the new progress of dragged item in one pass.
+     * Called by the dragged item before it notifies its listeners, the new sibling values are
+     * kept until {@link #applyConstrainedSiblings(FancyPickerItem)}.
+     * @return the progress of dragged item allowed by constraints.
+     */
+    float constrainProgress(FancyPickerItem draggedItem, float progress) {
+        balancePending = false;
+        if (constraints.isEmpty())
+            return progress;
+
+        if (balanceItems.length != fancyItemCount) {
+            balanceItems = new FancyPickerItem[fancyItemCount];
+            balanceValues = new float[fancyItemCount];
+            balanceChanged = new boolean[fancyItemCount];
+        }
+
+        int dragged = -1;
+        for (int i = 0; i < fancyItemCount; i++) {
+            FancyPickerItem item = (FancyPickerItem) getChildAt(fancyItemIndexes[i]);
+            balanceItems[i] = item;
+            if (item == draggedItem) {
+                dragged = i;
+                balanceValues[i] = progress;
+            } else {
+                balanceValues[i] = item.getProgress();
+            }
+        }
+
+        constraints.apply(balanceItems, dragged, balanceValues);
+        balancePending = true;
+
+        return dragged >= 0 ? balanceValues[dragged] : progress;
+    }
+
+    /**
+     * Give siblings the values from {@link #constrainProgress(FancyPickerItem, float)}, called
+     * after the dragged item took its own value. All siblings take their values before any
+     * of them notifies, so every listener sees a consistent state.
+     * Siblings only take the new value here, their layout is recalculated once when
+     * the drag stops, see {@link #onStopTrackingTouch(FancyPickerItem)}.
+     */
+    void applyConstrainedSiblings(FancyPickerItem draggedItem) {
+        if (!balancePending)
+            return;
+
+        balancePending = false;
+        for (int i = 0; i < fancyItemCount; i++) {
+            balanceChanged[i] = balanceItems[i] != draggedItem &&
+                    balanceItems[i].setConstrainedProgress(balanceValues[i]);
+        }
+        for (int i = 0; i < fancyItemCount; i++) {
+            if (balanceChanged[i])
+                balanceItems[i].notifyConstrainedProgress();
+        }
+    }
+
     @Override
     public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+        if (adaptiveQuality != null)
+            adaptiveQuality.startTracking();
+
         for (int i = 0; i < fancyItemCount; i++) {
             int pos = fancyItemIndexes[i];
             FancyPickerItem item = (FancyPickerItem) getChildAt(pos);
@@ -225,6 +693,15 @@ public class FancyPickerLayout extends FrameLayout implements
 
     @Override
     public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+        if (adaptiveQuality != null)
+            adaptiveQuality.stopTracking();
+
+        // Redraw siblings changed by constraints in one batch.
+        for (int i = 0; i < fancyItemCount; i++) {
+            int pos = fancyItemIndexes[i];
+            FancyPickerItem item = (FancyPickerItem) getChildAt(pos);
+            item.applyConstrainedProgress();
+        }
     }
 
     @Override
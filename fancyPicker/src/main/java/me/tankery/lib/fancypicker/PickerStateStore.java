@@ -0,0 +1,298 @@
+package me.tankery.lib.fancypicker;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Persist the values of all items in a {@code FancyPickerLayout} to a file.
+ *
+ * Once bound, changes are debounced on the UI thread, then a snapshot of the values is written
+ * on a background {@code Executor}. Bursts of changes are merged, only the latest snapshot is
+ * written. Saved values are read back on the same {@code Executor}, see
+ * {@link #restore(FancyPickerLayout, OnRestoreListener)}.
+ * The file is a compact binary format: magic, version, item count and the values.
+ */
+public class PickerStateStore implements FancyPickerItem.OnFancyPickerItemChangeListener {
+
+    private static final String TAG = "PickerStateStore";
+
+    private static final int MAGIC = 0x46505353; // "FPSS"
+    private static final int VERSION = 1;
+    /**
+     * Size of magic, version and item count.
+     */
+    private static final int HEADER_SIZE = 4 + 1 + 4;
+
+    private static final long DEFAULT_DEBOUNCE_DELAY_MS = 300;
+
+    /**
+     * Listener for the result of restore, called on the UI thread.
+     */
+    public interface OnRestoreListener {
+
+        public abstract void onRestored(boolean restored);
+    }
+
+    private final File file;
+    private final Executor executor;
+
+    private long debounceDelay = DEFAULT_DEBOUNCE_DELAY_MS;
+
+    private FancyPickerLayout boundLayout;
+    private FancyPickerItem[] boundItems;
+    /**
+     * A debounced snapshot is posted but not taken yet.
+     */
+    private boolean snapshotPending;
+    /**
+     * Restored values are being set, they are not changes to save.
+     */
+    private boolean restoring;
+
+    /**
+     * Latest snapshot not written yet, guarded by {@code this}.
+     */
+    private float[] pendingValues;
+    private boolean writeScheduled;
+
+    public PickerStateStore(File file, Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * Changes happen in {@code delayMs} are merged into one snapshot.
+     */
+    public void setDebounceDelay(long delayMs) {
+        debounceDelay = Math.max(0, delayMs);
+    }
+
+    /**
+     * Save the values of {@code layout} whenever they are changed.
+     * Must be called on the UI thread, after all items are added.
+     */
+    public void bind(FancyPickerLayout layout) {
+        unbind();
+
+        boundLayout = layout;
+        boundItems = layout.collectPickerItems();
+        for (FancyPickerItem item : boundItems) {
+            item.addOnFancyPickerItemChangeListener(this);
+        }
+    }
+
+    /**
+     * Stop saving the values, a change still waiting for the debounce delay is written first.
+     */
+    public void unbind() {
+        if (boundLayout == null)
+            return;
+
+        if (snapshotPending)
+            save();
+
+        for (FancyPickerItem item : boundItems) {
+            item.removeOnFancyPickerItemChangeListener(this);
+        }
+        boundLayout = null;
+        boundItems = null;
+    }
+
+    /**
+     * Write the values of bound layout now, without waiting for the debounce delay.
+     */
+    public void save() {
+        if (boundLayout == null)
+            return;
+
+        boundLayout.removeCallbacks(snapshotRunnable);
+        snapshotRunnable.run();
+    }
+
+    /**
+     * Read the saved values on the executor, then set them to {@code layout} on the UI thread.
+     * Items jump to the values without animation and notify their listeners as usual,
+     * but the restored values are not saved again.
+     * Must be called on the UI thread.
+     * @param listener told false if nothing saved, or the saved state doesn't match the items
+     *                 of layout, may be null.
+     */
+    public void restore(final FancyPickerLayout layout, final OnRestoreListener listener) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final float[] values = readOrNull();
+                layout.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean restored = values != null && apply(layout, values);
+                        if (listener != null)
+                            listener.onRestored(restored);
+                    }
+                });
+            }
+        });
+    }
+
+    private float[] readOrNull() {
+        try {
+            return read(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read picker state from " + file, e);
+            return null;
+        }
+    }
+
+    private boolean apply(FancyPickerLayout layout, float[] values) {
+        FancyPickerItem[] items = layout.collectPickerItems();
+        if (values.length != items.length)
+            return false;
+
+        restoring = true;
+        try {
+            for (int i = 0; i < values.length; i++) {
+                items[i].restoreProgress(values[i]);
+            }
+        } finally {
+            restoring = false;
+        }
+        return true;
+    }
+
+    @Override
+    public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
+        if (boundLayout != null && !restoring) {
+            boundLayout.removeCallbacks(snapshotRunnable);
+            boundLayout.postDelayed(snapshotRunnable, debounceDelay);
+            snapshotPending = true;
+        }
+    }
+
+    @Override
+    public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+    }
+
+    @Override
+    public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+    }
+
+    @Override
+    public void onEndTrackingAnimation(FancyPickerItem pickerItem) {
+    }
+
+    private final Runnable snapshotRunnable = new Runnable() {
+        @Override
+        public void run() {
+            snapshotPending = false;
+            if (boundLayout == null)
+                return;
+
+            float[] values = new float[boundItems.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = boundItems[i].getProgress();
+            }
+            submit(values);
+        }
+    };
+
+    /**
+     * Hand the snapshot to executor, replacing the one not written yet.
+     */
+    void submit(float[] values) {
+        synchronized (this) {
+            pendingValues = values;
+            if (writeScheduled)
+                return;
+            writeScheduled = true;
+        }
+        executor.execute(writeRunnable);
+    }
+
+    private final Runnable writeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                float[] values;
+                synchronized (PickerStateStore.this) {
+                    values = pendingValues;
+                    pendingValues = null;
+                    if (values == null) {
+                        writeScheduled = false;
+                        return;
+                    }
+                }
+
+                try {
+                    write(file, values);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to write picker state to " + file, e);
+                }
+            }
+        }
+    };
+
+    /**
+     * Write to a temp file, sync it to disk and rename it, so a crash or power loss in the
+     * middle never leaves a broken state.
+     */
+    static void write(File file, float[] values) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        FileOutputStream fileOut = new FileOutputStream(tempFile);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(values.length);
+            for (float value : values) {
+                out.writeFloat(value);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to rename " + tempFile + " to " + file);
+        }
+    }
+
+    static float[] read(File file) throws IOException {
+        long length = file.length();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a picker state file");
+            int version = in.readByte();
+            if (version != VERSION)
+                throw new IOException("Unknown picker state version " + version);
+
+            int count = in.readInt();
+            // Check with the file length, a broken count must not allocate a huge array.
+            if (count < 0 || count > (length - HEADER_SIZE) / 4)
+                throw new IOException("Invalid item count " + count);
+
+            float[] values = new float[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = in.readFloat();
+            }
+            return values;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package me.tankery.lib.fancypicker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constraints between the progress of items in a {@code FancyPickerLayout}:
+ * a total sum of all items, a min/max range of each item, and items locked from rebalancing.
+ *
+ * When the user drags an item, the siblings are rebalanced in one pass to satisfy the
+ * constraints, see {@link #balance(float[], float[], float[], boolean[], int, boolean, float)}.
+ */
+class ProgressConstraints {
+
+    /**
+     * Progress of item is from -100 ~ 100
+     */
+    static final float MIN_PROGRESS = -100f;
+    static final float MAX_PROGRESS = 100f;
+
+    private static final float EPSILON = 0.001f;
+
+    private static class ItemConstraint {
+        float min = MIN_PROGRESS;
+        float max = MAX_PROGRESS;
+        boolean locked;
+    }
+
+    private boolean hasSum;
+    private float sum;
+    private final Map<FancyPickerItem, ItemConstraint> itemConstraints = new HashMap<>();
+
+    /**
+     * Reusable buffers for {@link #apply(FancyPickerItem[], int, float[])}.
+     */
+    private float[] mins = new float[0];
+    private float[] maxs = new float[0];
+    private boolean[] locks = new boolean[0];
+
+    void setSum(float sum) {
+        this.hasSum = true;
+        this.sum = sum;
+    }
+
+    void clearSum() {
+        this.hasSum = false;
+    }
+
+    void setRange(FancyPickerItem item, float min, float max) {
+        // A range out of -100 ~ 100 can't be clamped into it, e.g. 150 ~ 200 would become
+        // min 150 & max 100, reject it instead.
+        if (min > max || min > MAX_PROGRESS || max < MIN_PROGRESS) {
+            throw new IllegalArgumentException("Invalid range " + min + " ~ " + max +
+                    ", must be within " + MIN_PROGRESS + " ~ " + MAX_PROGRESS);
+        }
+        ItemConstraint constraint = obtainItemConstraint(item);
+        constraint.min = Math.max(min, MIN_PROGRESS);
+        constraint.max = Math.min(max, MAX_PROGRESS);
+    }
+
+    void setLocked(FancyPickerItem item, boolean locked) {
+        obtainItemConstraint(item).locked = locked;
+    }
+
+    void clear() {
+        hasSum = false;
+        itemConstraints.clear();
+    }
+
+    boolean isEmpty() {
+        return !hasSum && itemConstraints.isEmpty();
+    }
+
+    /**
+     * Apply constraints to {@code values}, the progress of {@code items}.
+     * @param dragged index of the item being dragged by user.
+     */
+    void apply(FancyPickerItem[] items, int dragged, float[] values) {
+        int count = items.length;
+        if (mins.length < count) {
+            mins = new float[count];
+            maxs = new float[count];
+            locks = new boolean[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            ItemConstraint constraint = itemConstraints.get(items[i]);
+            mins[i] = constraint != null ? constraint.min : MIN_PROGRESS;
+            maxs[i] = constraint != null ? constraint.max : MAX_PROGRESS;
+            locks[i] = constraint != null && constraint.locked;
+        }
+
+        balance(values, mins, maxs, locks, dragged, hasSum, sum);
+    }
+
+    private ItemConstraint obtainItemConstraint(FancyPickerItem item) {
+        ItemConstraint constraint = itemConstraints.get(item);
+        if (constraint == null) {
+            constraint = new ItemConstraint();
+            itemConstraints.put(item, constraint);
+        }
+        return constraint;
+    }
+
+    /**
+     * Rebalance {@code values} in place.
+     *
+     * Every value is clamped into its range first. Then, if a sum is required, the difference is
+     * shared equally by the unlocked siblings of the dragged item, an item reaching its bound
+     * leaves the rest to the others. If the siblings can't take all of it, the dragged value is
+     * pulled back by the remainder, so user can't drag beyond what the constraints allow.
+     * Locked items only lock out the rebalancing, user can still drag them.
+     */
+    static void balance(float[] values, float[] mins, float[] maxs, boolean[] locks,
+                        int dragged, boolean hasSum, float sum) {
+        int count = values.length;
+        for (int i = 0; i < count; i++) {
+            values[i] = clamp(values[i], mins[i], maxs[i]);
+        }
+
+        if (!hasSum)
+            return;
+
+        float residual = sum;
+        for (int i = 0; i < count; i++) {
+            residual -= values[i];
+        }
+
+        // Each round either spreads all of the residual, or saturates at least one more item,
+        // so there are at most count rounds.
+        for (int round = 0; round < count && Math.abs(residual) > EPSILON; round++) {
+            boolean up = residual > 0;
+            int freeCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (isFree(i, values, mins, maxs, locks, dragged, up))
+                    freeCount++;
+            }
+            if (freeCount == 0)
+                break;
+
+            float share = residual / freeCount;
+            for (int i = 0; i < count; i++) {
+                if (!isFree(i, values, mins, maxs, locks, dragged, up))
+                    continue;
+                float value = clamp(values[i] + share, mins[i], maxs[i]);
+                residual -= value - values[i];
+                values[i] = value;
+            }
+        }
+
+        if (Math.abs(residual) > EPSILON && dragged >= 0 && dragged < count) {
+            values[dragged] = clamp(values[dragged] + residual, mins[dragged], maxs[dragged]);
+        }
+    }
+
+    private static boolean isFree(int i, float[] values, float[] mins, float[] maxs, boolean[] locks,
+                                  int dragged, boolean up) {
+        if (i == dragged || locks[i])
+            return false;
+        return up ? values[i] < maxs[i] : values[i] > mins[i];
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
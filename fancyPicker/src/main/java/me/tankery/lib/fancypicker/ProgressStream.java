@@ -0,0 +1,241 @@
+package me.tankery.lib.fancypicker;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Progress subscription that delivers item progress on a caller-supplied {@code Executor}.
+ *
+ * Values are conflated: while the consumer is busy, only the latest progress of each item is
+ * kept, so a slow consumer never sees stale values and never blocks the UI thread.
+ * After an item finishes its tracking animation, a final "settled" value is delivered.
+ *
+ * Created by {@link FancyPickerItem#subscribeProgress(Executor, OnProgressListener)} or
+ * {@link FancyPickerLayout#subscribeProgress(Executor, OnProgressListener)}.
+ * Must be cancelled on the UI thread.
+ */
+public class ProgressStream {
+
+    private static final String TAG = "ProgressStream";
+
+    /**
+     * Listener for the progress stream, called on the subscribed {@code Executor}.
+     */
+    public interface OnProgressListener {
+
+        public abstract void onProgress(FancyPickerItem pickerItem, float progress);
+
+        public abstract void onProgressSettled(FancyPickerItem pickerItem, float progress);
+    }
+
+    /**
+     * Latest undelivered values of an item.
+     */
+    private static class Pending {
+        final FancyPickerItem item;
+        boolean hasProgress;
+        float progress;
+        boolean settled;
+        float settledProgress;
+
+        Pending(FancyPickerItem item) {
+            this.item = item;
+        }
+    }
+
+    private final Executor executor;
+    private final OnProgressListener listener;
+    private final List<FancyPickerItem> items = new ArrayList<>();
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Map<FancyPickerItem, Pending> pendings = new LinkedHashMap<>();
+    private boolean drainScheduled;
+    private volatile boolean cancelled;
+
+    ProgressStream(Executor executor, OnProgressListener listener) {
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    void attach(FancyPickerItem item) {
+        items.add(item);
+        item.addOnFancyPickerItemChangeListener(itemListener);
+    }
+
+    /**
+     * Stop receiving progress. Values already handed to the executor are dropped.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (FancyPickerItem item : items)
+            item.removeOnFancyPickerItemChangeListener(itemListener);
+        items.clear();
+
+        synchronized (this) {
+            pendings.clear();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Listen to the attached items, kept private so only the items can feed the stream.
+     */
+    private final FancyPickerItem.OnFancyPickerItemChangeListener itemListener =
+            new FancyPickerItem.OnFancyPickerItemChangeListener() {
+        @Override
+        public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
+            synchronized (ProgressStream.this) {
+                Pending pending = obtainPending(pickerItem);
+                pending.hasProgress = true;
+                pending.progress = progress;
+                // A new change supersedes the settled value not delivered yet.
+                pending.settled = false;
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onEndTrackingAnimation(FancyPickerItem pickerItem) {
+            synchronized (ProgressStream.this) {
+                Pending pending = obtainPending(pickerItem);
+                pending.settled = true;
+                pending.settledProgress = pickerItem.getProgress();
+            }
+            scheduleDrain();
+        }
+    };
+
+    private Pending obtainPending(FancyPickerItem pickerItem) {
+        Pending pending = pendings.get(pickerItem);
+        if (pending == null) {
+            pending = new Pending(pickerItem);
+            pendings.put(pickerItem, pending);
+        }
+        return pending;
+    }
+
+    private void scheduleDrain() {
+        synchronized (this) {
+            if (drainScheduled || cancelled)
+                return;
+            drainScheduled = true;
+        }
+
+        try {
+            executor.execute(drainRunnable);
+        } catch (RejectedExecutionException e) {
+            // Usually called from touch handling on the UI thread, never throw into it.
+            // Drop the values, the next change tries the executor again.
+            Log.w(TAG, "Executor rejected the progress delivery, values dropped", e);
+            synchronized (this) {
+                pendings.clear();
+                drainScheduled = false;
+            }
+        }
+    }
+
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                drain();
+                drained = true;
+            } finally {
+                // A throwing listener must not leave the stream scheduled forever.
+                // On normal return, drain() already reset the flag under the lock.
+                if (!drained) {
+                    boolean hasPending;
+                    synchronized (ProgressStream.this) {
+                        drainScheduled = false;
+                        hasPending = !pendings.isEmpty();
+                    }
+                    // Values put back by drain() may never be followed by a new change.
+                    if (hasPending)
+                        scheduleDrain();
+                }
+            }
+        }
+    };
+
+    private void drain() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (this) {
+                if (pendings.isEmpty() || cancelled) {
+                    drainScheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(pendings.values());
+                pendings.clear();
+            }
+
+            int index = 0;
+            try {
+                for (; index < batch.size(); index++) {
+                    if (cancelled)
+                        break;
+                    // Clear each value before its delivery, so a throwing listener drops
+                    // only the value it failed on.
+                    Pending pending = batch.get(index);
+                    if (pending.hasProgress) {
+                        pending.hasProgress = false;
+                        listener.onProgress(pending.item, pending.progress);
+                    }
+                    if (pending.settled) {
+                        pending.settled = false;
+                        listener.onProgressSettled(pending.item, pending.settledProgress);
+                    }
+                }
+            } finally {
+                if (index < batch.size())
+                    requeue(batch, index);
+            }
+        }
+    }
+
+    /**
+     * Put the undelivered values of {@code batch} from {@code start} back to pendings,
+     * behind the newer values arrived in the meantime.
+     */
+    private void requeue(List<Pending> batch, int start) {
+        synchronized (this) {
+            if (cancelled)
+                return;
+
+            for (int i = start; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                if (!pending.hasProgress && !pending.settled)
+                    continue;
+
+                Pending newer = pendings.get(pending.item);
+                if (newer == null) {
+                    pendings.put(pending.item, pending);
+                } else if (!newer.hasProgress && pending.hasProgress) {
+                    // Newer one is only settled, keep the progress before it.
+                    newer.hasProgress = true;
+                    newer.progress = pending.progress;
+                }
+            }
+        }
+    }
+}
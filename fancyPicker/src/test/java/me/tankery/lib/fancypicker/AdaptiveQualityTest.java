@@ -0,0 +1,133 @@
+package me.tankery.lib.fancypicker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class AdaptiveQualityTest {
+
+    private static final long FAST_FRAME_NANOS = 16 * 1000 * 1000;
+    private static final long SLOW_FRAME_NANOS = 40 * 1000 * 1000;
+
+    private AdaptiveQuality quality;
+    private final List<Integer> levels = new ArrayList<>();
+    private long frameTimeNanos;
+
+    @Before
+    public void setUp() {
+        FancyPickerLayout layout = new FancyPickerLayout(RuntimeEnvironment.application);
+        layout.setAdaptiveQualityEnabled(true);
+        quality = layout.getAdaptiveQuality();
+        quality.setOnQualityLevelChangeListener(new AdaptiveQuality.OnQualityLevelChangeListener() {
+            @Override
+            public void onQualityLevelChanged(int level) {
+                levels.add(level);
+            }
+        });
+
+        // The first frame only gives the time to measure the next one from.
+        frameTimeNanos = 1000L * 1000 * 1000;
+        quality.onFrame(frameTimeNanos);
+    }
+
+    @Test
+    public void stepsDownAfterSlowFramesInARow() {
+        frames(SLOW_FRAME_NANOS, 3);
+        assertEquals(AdaptiveQuality.LEVEL_FULL, quality.getLevel());
+
+        frames(SLOW_FRAME_NANOS, 1);
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, quality.getLevel());
+
+        frames(SLOW_FRAME_NANOS, 4);
+        assertEquals(AdaptiveQuality.LEVEL_SIMPLE_LABELS, quality.getLevel());
+    }
+
+    @Test
+    public void fastFrameBreaksTheSlowRun() {
+        frames(SLOW_FRAME_NANOS, 3);
+        frames(FAST_FRAME_NANOS, 1);
+        frames(SLOW_FRAME_NANOS, 3);
+
+        assertEquals(AdaptiveQuality.LEVEL_FULL, quality.getLevel());
+    }
+
+    @Test
+    public void stepsUpAfterFastFramesInARow() {
+        frames(SLOW_FRAME_NANOS, 8);
+        assertEquals(AdaptiveQuality.LEVEL_SIMPLE_LABELS, quality.getLevel());
+
+        frames(FAST_FRAME_NANOS, 59);
+        assertEquals(AdaptiveQuality.LEVEL_SIMPLE_LABELS, quality.getLevel());
+
+        frames(FAST_FRAME_NANOS, 1);
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, quality.getLevel());
+
+        // A slow frame starts the fast run over.
+        frames(FAST_FRAME_NANOS, 30);
+        frames(SLOW_FRAME_NANOS, 1);
+        frames(FAST_FRAME_NANOS, 59);
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, quality.getLevel());
+    }
+
+    @Test
+    public void neverStepsBelowMaxLevel() {
+        quality.setMaxLevel(AdaptiveQuality.LEVEL_NO_DITHER);
+
+        frames(SLOW_FRAME_NANOS, 20);
+
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, quality.getLevel());
+    }
+
+    @Test
+    public void maxLevelIsClampedAndLowersCurrentLevel() {
+        quality.setMaxLevel(100);
+        frames(SLOW_FRAME_NANOS, 40);
+        assertEquals(AdaptiveQuality.LEVEL_NO_ANIMATION, quality.getLevel());
+
+        quality.setMaxLevel(AdaptiveQuality.LEVEL_SIMPLE_LABELS);
+        assertEquals(AdaptiveQuality.LEVEL_SIMPLE_LABELS, quality.getLevel());
+
+        quality.setMaxLevel(-1);
+        assertEquals(AdaptiveQuality.LEVEL_FULL, quality.getLevel());
+    }
+
+    @Test
+    public void listenerIsToldEveryLevelChange() {
+        frames(SLOW_FRAME_NANOS, 8);
+        frames(FAST_FRAME_NANOS, 60);
+
+        assertEquals(3, levels.size());
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, (int) levels.get(0));
+        assertEquals(AdaptiveQuality.LEVEL_SIMPLE_LABELS, (int) levels.get(1));
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, (int) levels.get(2));
+    }
+
+    @Test
+    public void frameBudgetDecidesWhatIsSlow() {
+        quality.setFrameBudget(50);
+        frames(SLOW_FRAME_NANOS, 10);
+        assertEquals(AdaptiveQuality.LEVEL_FULL, quality.getLevel());
+
+        quality.setStepDownFrames(2);
+        quality.setFrameBudget(30);
+        frames(SLOW_FRAME_NANOS, 2);
+        assertEquals(AdaptiveQuality.LEVEL_NO_DITHER, quality.getLevel());
+    }
+
+    private void frames(long intervalNanos, int count) {
+        for (int i = 0; i < count; i++) {
+            frameTimeNanos += intervalNanos;
+            quality.onFrame(frameTimeNanos);
+        }
+    }
+}
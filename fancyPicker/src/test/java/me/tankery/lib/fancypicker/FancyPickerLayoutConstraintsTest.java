@@ -0,0 +1,165 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drag an item of a real layout with constraints, through the seek bar touch handling,
+ * and check what the item listeners see.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FancyPickerLayoutConstraintsTest {
+
+    private static final int ITEM_COUNT = 3;
+    private static final float SUM = 100;
+    private static final float DELTA = 0.01f;
+
+    private static final float[] INITIAL_VALUES = {40, 30, 30};
+
+    /**
+     * Record the callbacks of an item, checking the sum inside each of them.
+     */
+    private class Recorder implements FancyPickerItem.OnFancyPickerItemChangeListener {
+        final FancyPickerItem item;
+        float lastValue;
+        int eventCallbacks;
+        int totalCallbacks;
+
+        Recorder(FancyPickerItem item) {
+            this.item = item;
+            this.lastValue = item.getProgress();
+        }
+
+        @Override
+        public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
+            eventCallbacks++;
+            totalCallbacks++;
+            assertEquals("sum inside callback of item " + item.getText(), SUM, sumOfProgress(), DELTA);
+            assertTrue("item " + item.getText() + " notified " + progress + " again", progress != lastValue);
+            lastValue = progress;
+        }
+
+        @Override
+        public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onEndTrackingAnimation(FancyPickerItem pickerItem) {
+        }
+    }
+
+    private GestureTrace trace;
+    private FancyPickerLayout layout;
+    private Recorder[] recorders;
+
+    @Before
+    public void setUp() throws Exception {
+        trace = GestureTrace.load("gestures/drag_slow.trace");
+        layout = PickerTestLayouts.createLaidOut(
+                Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT, trace.width, trace.height);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            layout.getPickerItem(i).setProgress(INITIAL_VALUES[i]);
+        }
+        // Let the items settle at the initial values.
+        Robolectric.flushForegroundThreadScheduler();
+    }
+
+    @Test
+    public void draggedSumIsKeptWithOneValuePerEvent() {
+        layout.setSumConstraint(SUM);
+        attachRecorders();
+
+        long baseTime = SystemClock.uptimeMillis();
+        long downTime = baseTime;
+        for (GestureTrace.Sample sample : trace.samples) {
+            long eventTime = baseTime + sample.time;
+            if (sample.action == MotionEvent.ACTION_DOWN)
+                downTime = eventTime;
+            MotionEvent event = MotionEvent.obtain(downTime, eventTime, sample.action, sample.x, sample.y, 0);
+
+            resetEventCallbacks();
+            layout.dispatchTouchEvent(event);
+            event.recycle();
+
+            for (Recorder recorder : recorders) {
+                assertTrue("item " + recorder.item.getText() + " notified more than once in an event",
+                        recorder.eventCallbacks <= 1);
+            }
+            if (sample.action == MotionEvent.ACTION_UP)
+                assertNoSiblingCallbacks();
+        }
+
+        // Release and the end animation must not notify the siblings again.
+        resetEventCallbacks();
+        Robolectric.flushForegroundThreadScheduler();
+        assertNoSiblingCallbacks();
+        assertEquals(0, recorders[0].eventCallbacks);
+
+        assertTrue("drag didn't rebalance siblings", recorders[1].totalCallbacks > 0);
+        assertTrue("drag didn't rebalance siblings", recorders[2].totalCallbacks > 0);
+        assertEquals(SUM, sumOfProgress(), DELTA);
+    }
+
+    @Test
+    public void rangeIsCutToProgressRange() {
+        FancyPickerItem item = layout.getPickerItem(0);
+        layout.setItemRangeConstraint(item, 50, 150);
+
+        item.onProgressChanged(item.getCircularSeekBar(), 120, true);
+
+        assertEquals(100, item.getProgress(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOutOfProgressRangeIsRejected() {
+        layout.setItemRangeConstraint(layout.getPickerItem(0), 150, 200);
+    }
+
+    private void attachRecorders() {
+        recorders = new Recorder[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            recorders[i] = new Recorder(layout.getPickerItem(i));
+            layout.getPickerItem(i).addOnFancyPickerItemChangeListener(recorders[i]);
+        }
+    }
+
+    private void resetEventCallbacks() {
+        for (Recorder recorder : recorders) {
+            recorder.eventCallbacks = 0;
+        }
+    }
+
+    /**
+     * Item 0 is dragged by the trace, the others are only changed by constraints.
+     */
+    private void assertNoSiblingCallbacks() {
+        for (int i = 1; i < ITEM_COUNT; i++) {
+            assertEquals("callbacks of sibling " + i, 0, recorders[i].eventCallbacks);
+        }
+    }
+
+    private float sumOfProgress() {
+        float sum = 0;
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            sum += layout.getPickerItem(i).getProgress();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,136 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FancyPickerLayoutMeasureTest {
+
+    private static final int ITEM_COUNT = 3;
+    private static final int WIDTH = 600;
+
+    private FancyPickerLayout layout;
+
+    @Before
+    public void setUp() {
+        layout = PickerTestLayouts.createAttached(Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT);
+    }
+
+    @Test
+    public void exactlyHeightKeepsHeightWithSquareRing() {
+        measure(MeasureSpec.makeMeasureSpec(800, MeasureSpec.EXACTLY));
+
+        assertEquals(WIDTH, layout.getMeasuredWidth());
+        assertEquals(800, layout.getMeasuredHeight());
+        assertRingSize(WIDTH);
+    }
+
+    @Test
+    public void atMostHeightShrinksRing() {
+        measure(MeasureSpec.makeMeasureSpec(400, MeasureSpec.AT_MOST));
+
+        assertEquals(WIDTH, layout.getMeasuredWidth());
+        assertEquals(400, layout.getMeasuredHeight());
+        assertRingSize(400);
+    }
+
+    @Test
+    public void unspecifiedHeightFallsBackToWidth() {
+        // Like a wrap_content picker with minHeight inside a ScrollView.
+        layout.setMinimumHeight(320);
+        measure(MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+
+        assertEquals(WIDTH, layout.getMeasuredWidth());
+        assertEquals(WIDTH, layout.getMeasuredHeight());
+        assertRingSize(WIDTH);
+    }
+
+    @Test
+    public void matchParentChildIsMeasuredOnceWithExactSpecs() {
+        CountingView label = addMatchParentLabel();
+
+        label.forceLayout();
+        measure(MeasureSpec.makeMeasureSpec(800, MeasureSpec.EXACTLY));
+        assertEquals(1, label.measureCount);
+
+        // Not exact, the label has to take our final height in a second pass.
+        label.measureCount = 0;
+        label.forceLayout();
+        measure(MeasureSpec.makeMeasureSpec(400, MeasureSpec.AT_MOST));
+        assertEquals(2, label.measureCount);
+        assertEquals(400, label.getMeasuredHeight());
+    }
+
+    @Test
+    public void ringChildrenAreCenteredWithoutChangingTheirParams() {
+        measure(MeasureSpec.makeMeasureSpec(800, MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, 800);
+
+        for (int i = 0; i < layout.getPickerItemCount(); i++) {
+            FancyPickerItem item = layout.getPickerItem(i);
+            View seekBar = item.getCircularSeekBar();
+
+            assertEquals(-1, ((FrameLayout.LayoutParams) item.getLayoutParams()).gravity);
+            assertEquals(0, item.getLeft());
+            assertEquals((800 - WIDTH) / 2, item.getTop());
+            assertEquals(0, seekBar.getLeft());
+            assertEquals((800 - WIDTH) / 2, seekBar.getTop());
+        }
+    }
+
+    private CountingView addMatchParentLabel() {
+        CountingView label = new CountingView(layout.getContext());
+        layout.addView(label, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+        return label;
+    }
+
+    /**
+     * Count how many times it's really measured.
+     */
+    private static class CountingView extends View {
+        int measureCount;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    private void measure(int heightMeasureSpec) {
+        layout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY), heightMeasureSpec);
+    }
+
+    /**
+     * Every item and its seek bar are measured to the same square ring.
+     */
+    private void assertRingSize(int size) {
+        for (int i = 0; i < layout.getPickerItemCount(); i++) {
+            FancyPickerItem item = layout.getPickerItem(i);
+            View seekBar = item.getCircularSeekBar();
+
+            assertEquals(size, item.getMeasuredWidth());
+            assertEquals(size, item.getMeasuredHeight());
+            assertEquals(size, seekBar.getMeasuredWidth());
+            assertEquals(size, seekBar.getMeasuredHeight());
+        }
+    }
+}
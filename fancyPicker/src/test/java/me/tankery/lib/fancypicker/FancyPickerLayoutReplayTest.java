@@ -0,0 +1,141 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replay recorded gestures through the whole touch path of {@link FancyPickerLayout} and report
+ * the per-event cost, so changes to the touch handling can be compared on realistic traces.
+ *
+ * Each trace is replayed {@link #WARMUP_PASSES} times to get class loading, JIT and the
+ * Robolectric shadows out of the way, then {@link #TIMED_PASSES} times on a fresh layout each.
+ * The summary of the timed passes is written by {@link #publish(GestureReplayer.Summary)}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FancyPickerLayoutReplayTest {
+
+    private static final int ITEM_COUNT = 3;
+
+    private static final int WARMUP_PASSES = 5;
+    private static final int TIMED_PASSES = 15;
+
+    /**
+     * Directory of the summaries, relative to the module when run by gradle.
+     */
+    private static final String REPORT_DIR = "build/reports/gesture-replay";
+
+    @Test
+    public void replaySlowDrag() throws Exception {
+        GestureTrace trace = GestureTrace.load("gestures/drag_slow.trace");
+
+        publish(benchmark(trace, 0));
+    }
+
+    @Test
+    public void replayFastFling() throws Exception {
+        GestureTrace trace = GestureTrace.load("gestures/fling_fast.trace");
+
+        publish(benchmark(trace, 1));
+    }
+
+    @Test
+    public void cancelReleasesCapture() throws Exception {
+        GestureTrace trace = GestureTrace.load("gestures/drag_cancel.trace");
+        GestureReplayer.Report report = replay(trace);
+
+        // The stray move after cancel must not be routed to the seek bar any more.
+        assertCapturedBy(report, 0, trace.samples.size() - 1);
+    }
+
+    /**
+     * Replay warm-up and timed passes, every pass must be captured by {@code itemIndex}.
+     */
+    private GestureReplayer.Summary benchmark(GestureTrace trace, int itemIndex) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            assertReplayedBy(replay(trace), itemIndex, trace);
+        }
+
+        List<GestureReplayer.Report> reports = new ArrayList<>();
+        for (int i = 0; i < TIMED_PASSES; i++) {
+            GestureReplayer.Report report = replay(trace);
+            assertReplayedBy(report, itemIndex, trace);
+            reports.add(report);
+        }
+
+        return new GestureReplayer.Summary(reports);
+    }
+
+    private GestureReplayer.Report replay(GestureTrace trace) {
+        FancyPickerLayout layout = createLayout(trace.width, trace.height);
+
+        GestureReplayer replayer = new GestureReplayer(layout);
+        GestureReplayer.Report report = replayer.replay(trace);
+
+        // Let the end animation and the delayed seek bar hiding run.
+        Robolectric.flushForegroundThreadScheduler();
+
+        return report;
+    }
+
+    /**
+     * The only place the numbers leave the test: one file per trace, replaced on each run.
+     */
+    private void publish(GestureReplayer.Summary summary) throws IOException {
+        File dir = new File(REPORT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Failed to create " + dir);
+
+        // Trace name is the resource path, e.g. gestures/drag_slow.trace.
+        String fileName = new File(summary.traceName).getName() + ".txt";
+        Writer writer = new FileWriter(new File(dir, fileName));
+        try {
+            writer.write(summary.toString());
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void assertReplayedBy(GestureReplayer.Report report, int itemIndex, GestureTrace trace) {
+        assertTracked(report);
+        assertCapturedBy(report, itemIndex, trace.samples.size());
+    }
+
+    private void assertTracked(GestureReplayer.Report report) {
+        // A trace missing every item would only time the FrameLayout path, fail instead.
+        assertTrue(report.traceName + " didn't start tracking any item", report.startTrackingCount > 0);
+        assertTrue(report.traceName + " didn't change any progress", report.progressChangedCount > 0);
+        assertEquals(report.startTrackingCount, report.stopTrackingCount);
+    }
+
+    /**
+     * All events of the gesture go to the seek bar of the captured item, none to the others.
+     */
+    private void assertCapturedBy(GestureReplayer.Report report, int itemIndex, int eventCount) {
+        for (int i = 0; i < report.seekBarEventCounts.length; i++) {
+            assertEquals("events routed to seek bar of item " + i,
+                    i == itemIndex ? eventCount : 0, report.seekBarEventCounts[i]);
+        }
+    }
+
+    private FancyPickerLayout createLayout(int width, int height) {
+        return PickerTestLayouts.createLaidOut(
+                Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT, width, height);
+    }
+}
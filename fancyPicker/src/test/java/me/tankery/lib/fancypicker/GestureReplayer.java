@@ -0,0 +1,236 @@
+package me.tankery.lib.fancypicker;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replay a {@link GestureTrace} through {@link FancyPickerLayout#dispatchTouchEvent(MotionEvent)}
+ * and collect the cost of each event: CPU time per event, bytes allocated per gesture and the
+ * number of listener callbacks fired by the picker items.
+ *
+ * The events of a pass are created before it starts, so only the picker's own work is inside
+ * the measured window. A single pass is cold and noisy, use {@link Summary} over several
+ * passes after warm-up to compare changes.
+ *
+ * Allocation counting relies on {@code com.sun.management.ThreadMXBean}, when the running JVM
+ * doesn't support it the allocation numbers are reported as -1.
+ */
+class GestureReplayer implements FancyPickerItem.OnFancyPickerItemChangeListener {
+
+    static class Report {
+        final String traceName;
+
+        int eventCount;
+        int gestureCount;
+        long totalCpuNanos;
+        long maxCpuNanos;
+        long totalAllocatedBytes;
+        long maxAllocatedBytes;
+
+        int progressChangedCount;
+        int startTrackingCount;
+        int stopTrackingCount;
+        int endAnimationCount;
+
+        /**
+         * Touch events received by the seek bar of each item, in item order.
+         */
+        final int[] seekBarEventCounts;
+
+        Report(String traceName, int itemCount) {
+            this.traceName = traceName;
+            this.seekBarEventCounts = new int[itemCount];
+        }
+
+        long meanCpuNanosPerEvent() {
+            return eventCount == 0 ? 0 : totalCpuNanos / eventCount;
+        }
+
+        long meanAllocatedBytesPerGesture() {
+            if (totalAllocatedBytes < 0)
+                return -1;
+            return gestureCount == 0 ? 0 : totalAllocatedBytes / gestureCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d events, %d gestures | cpu/event mean %.1fus max %.1fus" +
+                            " | alloc/gesture mean %dB max %dB" +
+                            " | callbacks progress=%d start=%d stop=%d endAnim=%d",
+                    traceName, eventCount, gestureCount,
+                    meanCpuNanosPerEvent() / 1000f, maxCpuNanos / 1000f,
+                    meanAllocatedBytesPerGesture(), maxAllocatedBytes,
+                    progressChangedCount, startTrackingCount, stopTrackingCount, endAnimationCount);
+        }
+    }
+
+    /**
+     * Median & max of the reports of several timed passes of the same trace.
+     */
+    static class Summary {
+        final String traceName;
+        final int passCount;
+
+        long medianCpuNanosPerEvent;
+        long maxCpuNanosPerEvent;
+        long medianAllocatedBytesPerGesture;
+        long maxAllocatedBytesPerGesture;
+
+        Summary(List<Report> reports) {
+            traceName = reports.get(0).traceName;
+            passCount = reports.size();
+
+            long[] cpu = new long[passCount];
+            long[] alloc = new long[passCount];
+            for (int i = 0; i < passCount; i++) {
+                Report report = reports.get(i);
+                cpu[i] = report.meanCpuNanosPerEvent();
+                alloc[i] = report.meanAllocatedBytesPerGesture();
+                maxCpuNanosPerEvent = Math.max(maxCpuNanosPerEvent, report.maxCpuNanos);
+                maxAllocatedBytesPerGesture = Math.max(maxAllocatedBytesPerGesture, report.maxAllocatedBytes);
+            }
+            medianCpuNanosPerEvent = median(cpu);
+            medianAllocatedBytesPerGesture = median(alloc);
+            if (medianAllocatedBytesPerGesture < 0)
+                maxAllocatedBytesPerGesture = -1;
+        }
+
+        private static long median(long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d passes | cpu/event median %.1fus max %.1fus" +
+                            " | alloc/gesture median %dB max %dB",
+                    traceName, passCount,
+                    medianCpuNanosPerEvent / 1000f, maxCpuNanosPerEvent / 1000f,
+                    medianAllocatedBytesPerGesture, maxAllocatedBytesPerGesture);
+        }
+    }
+
+    private final FancyPickerLayout layout;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private Report report;
+
+    GestureReplayer(FancyPickerLayout layout) {
+        this.layout = layout;
+
+        for (int i = 0; i < layout.getPickerItemCount(); i++) {
+            FancyPickerItem item = layout.getPickerItem(i);
+            item.addOnFancyPickerItemChangeListener(this);
+
+            final int itemIndex = i;
+            item.getCircularSeekBar().setOnTouchListener(new View.OnTouchListener() {
+                @Override
+                public boolean onTouch(View view, MotionEvent motionEvent) {
+                    if (report != null) report.seekBarEventCounts[itemIndex]++;
+                    // Don't consume, let the seek bar handle it.
+                    return false;
+                }
+            });
+        }
+    }
+
+    /**
+     * Replay the whole trace once. Event times are rebased on the current uptime so the seek bar's
+     * own timing logic sees a realistic, monotonic stream.
+     */
+    Report replay(GestureTrace trace) {
+        report = new Report(trace.name, layout.getPickerItemCount());
+
+        List<GestureTrace.Sample> samples = trace.samples;
+        MotionEvent[] events = obtainEvents(samples);
+        long gestureStartBytes = 0;
+
+        for (int i = 0; i < events.length; i++) {
+            MotionEvent event = events[i];
+            int action = samples.get(i).action;
+            if (action == MotionEvent.ACTION_DOWN)
+                gestureStartBytes = allocatedBytes();
+
+            long cpuStart = threadBean.getCurrentThreadCpuTime();
+            layout.dispatchTouchEvent(event);
+            long cpuNanos = threadBean.getCurrentThreadCpuTime() - cpuStart;
+
+            report.eventCount++;
+            report.totalCpuNanos += cpuNanos;
+            report.maxCpuNanos = Math.max(report.maxCpuNanos, cpuNanos);
+
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                report.gestureCount++;
+                long bytes = allocatedBytes();
+                if (bytes < 0 || gestureStartBytes < 0) {
+                    report.totalAllocatedBytes = -1;
+                    report.maxAllocatedBytes = -1;
+                } else if (report.totalAllocatedBytes >= 0) {
+                    long gestureBytes = bytes - gestureStartBytes;
+                    report.totalAllocatedBytes += gestureBytes;
+                    report.maxAllocatedBytes = Math.max(report.maxAllocatedBytes, gestureBytes);
+                }
+            }
+        }
+
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+
+        return report;
+    }
+
+    private static MotionEvent[] obtainEvents(List<GestureTrace.Sample> samples) {
+        MotionEvent[] events = new MotionEvent[samples.size()];
+        long baseTime = SystemClock.uptimeMillis();
+        long downTime = baseTime;
+
+        for (int i = 0; i < events.length; i++) {
+            GestureTrace.Sample sample = samples.get(i);
+            long eventTime = baseTime + sample.time;
+            if (sample.action == MotionEvent.ACTION_DOWN)
+                downTime = eventTime;
+            events[i] = MotionEvent.obtain(downTime, eventTime, sample.action, sample.x, sample.y, 0);
+        }
+        return events;
+    }
+
+    private long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    @Override
+    public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
+        if (report != null) report.progressChangedCount++;
+    }
+
+    @Override
+    public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+        if (report != null) report.startTrackingCount++;
+    }
+
+    @Override
+    public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+        if (report != null) report.stopTrackingCount++;
+    }
+
+    @Override
+    public void onEndTrackingAnimation(FancyPickerItem pickerItem) {
+        if (report != null) report.endAnimationCount++;
+    }
+}
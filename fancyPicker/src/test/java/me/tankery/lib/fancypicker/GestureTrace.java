@@ -0,0 +1,122 @@
+package me.tankery.lib.fancypicker;
+
+import android.view.MotionEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded touch stream, loaded from a plain text trace file.
+ *
+ * The format is line based, blank lines and lines start with '#' are ignored:
+ * <pre>
+ * size &lt;width&gt; &lt;height&gt;
+ * &lt;timeMs&gt; &lt;DOWN|MOVE|UP|CANCEL&gt; &lt;x&gt; &lt;y&gt;
+ * ...
+ * </pre>
+ * The {@code size} line gives the layout size the trace was recorded with, coordinates are
+ * in pixels relative to the layout's top-left corner.
+ */
+class GestureTrace {
+
+    static class Sample {
+        final long time;
+        final int action;
+        final float x;
+        final float y;
+
+        Sample(long time, int action, float x, float y) {
+            this.time = time;
+            this.action = action;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    final String name;
+    final int width;
+    final int height;
+    final List<Sample> samples;
+
+    private GestureTrace(String name, int width, int height, List<Sample> samples) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.samples = Collections.unmodifiableList(samples);
+    }
+
+    /**
+     * Load a trace from the test resources, e.g. {@code gestures/drag_slow.trace}.
+     */
+    static GestureTrace load(String resource) throws IOException {
+        InputStream in = GestureTrace.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Gesture trace not found: " + resource);
+        }
+
+        try {
+            return parse(resource, new BufferedReader(new InputStreamReader(in, "UTF-8")));
+        } finally {
+            in.close();
+        }
+    }
+
+    static GestureTrace parse(String name, BufferedReader reader) throws IOException {
+        int width = 0;
+        int height = 0;
+        List<Sample> samples = new ArrayList<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] fields = line.split("\\s+");
+            try {
+                if (fields[0].equals("size") && fields.length == 3) {
+                    width = Integer.parseInt(fields[1]);
+                    height = Integer.parseInt(fields[2]);
+                } else if (fields.length == 4) {
+                    samples.add(new Sample(
+                            Long.parseLong(fields[0]),
+                            parseAction(fields[1]),
+                            Float.parseFloat(fields[2]),
+                            Float.parseFloat(fields[3])));
+                } else {
+                    throw new IOException(name + ":" + lineNumber + ": malformed line '" + line + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(name + ":" + lineNumber + ": malformed number in '" + line + "'", e);
+            }
+        }
+
+        if (width <= 0 || height <= 0) {
+            throw new IOException(name + ": missing 'size' line");
+        }
+
+        return new GestureTrace(name, width, height, samples);
+    }
+
+    private static int parseAction(String action) throws IOException {
+        switch (action) {
+            case "DOWN":
+                return MotionEvent.ACTION_DOWN;
+            case "MOVE":
+                return MotionEvent.ACTION_MOVE;
+            case "UP":
+                return MotionEvent.ACTION_UP;
+            case "CANCEL":
+                return MotionEvent.ACTION_CANCEL;
+            default:
+                throw new IOException("Unknown action '" + action + "'");
+        }
+    }
+}
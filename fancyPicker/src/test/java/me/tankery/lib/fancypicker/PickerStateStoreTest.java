@@ -0,0 +1,241 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PickerStateStoreTest {
+
+    private static final float DELTA = 0.0001f;
+    private static final int ITEM_COUNT = 3;
+    private static final long DEBOUNCE_DELAY_MS = 300;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void writeAndReadRoundTrip() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        float[] values = {-12.5f, 0f, 87.25f};
+
+        PickerStateStore.write(file, values);
+
+        assertArrayEquals(values, PickerStateStore.read(file), DELTA);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void burstOfSnapshotsIsMergedIntoOneWrite() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        QueuedExecutor executor = new QueuedExecutor();
+        PickerStateStore store = new PickerStateStore(file, executor);
+
+        store.submit(new float[] {10, 20, 70});
+        store.submit(new float[] {15, 20, 65});
+        store.submit(new float[] {20, 20, 60});
+
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertArrayEquals(new float[] {20, 20, 60}, PickerStateStore.read(file), DELTA);
+
+        store.submit(new float[] {30, 10, 60});
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertArrayEquals(new float[] {30, 10, 60}, PickerStateStore.read(file), DELTA);
+    }
+
+    @Test
+    public void readRejectsUnknownFile() throws IOException {
+        File file = tempFolder.newFile("garbage.state");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        out.close();
+
+        try {
+            PickerStateStore.read(file);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void readRejectsBrokenItemCount() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        PickerStateStore.write(file, new float[] {10, 20, 70});
+
+        // Overwrite the item count after magic & version.
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(5);
+        randomAccessFile.writeInt(Integer.MAX_VALUE);
+        randomAccessFile.close();
+
+        try {
+            PickerStateStore.read(file);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Expected.
+        }
+
+        QueuedExecutor executor = new QueuedExecutor();
+        PickerStateStore store = new PickerStateStore(file, executor);
+        RestoreResult result = new RestoreResult();
+        store.restore(createLayout(), result);
+        executor.runAll();
+        runUiThreadTasks();
+
+        assertEquals(Boolean.FALSE, result.restored);
+    }
+
+    @Test
+    public void boundChangesAreDebouncedIntoOneWrite() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        QueuedExecutor executor = new QueuedExecutor();
+        PickerStateStore store = new PickerStateStore(file, executor);
+        store.setDebounceDelay(DEBOUNCE_DELAY_MS);
+
+        FancyPickerLayout layout = createLayout();
+        store.bind(layout);
+
+        drag(layout.getPickerItem(0), 40);
+        drag(layout.getPickerItem(1), 35);
+        drag(layout.getPickerItem(2), 25);
+
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        scheduler.advanceBy(DEBOUNCE_DELAY_MS - 1);
+        assertEquals(0, executor.tasks.size());
+
+        scheduler.advanceBy(1);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertArrayEquals(new float[] {40, 35, 25}, PickerStateStore.read(file), DELTA);
+    }
+
+    @Test
+    public void unbindFlushesPendingChange() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        QueuedExecutor executor = new QueuedExecutor();
+        PickerStateStore store = new PickerStateStore(file, executor);
+        store.setDebounceDelay(DEBOUNCE_DELAY_MS);
+
+        FancyPickerLayout layout = createLayout();
+        store.bind(layout);
+        drag(layout.getPickerItem(0), 50);
+
+        store.unbind();
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertArrayEquals(new float[] {50, 0, 0}, PickerStateStore.read(file), DELTA);
+    }
+
+    @Test
+    public void restoreNotifiesItemsWithoutSavingAgain() throws IOException {
+        File file = new File(tempFolder.getRoot(), "picker.state");
+        PickerStateStore.write(file, new float[] {20, 30, 50});
+
+        QueuedExecutor executor = new QueuedExecutor();
+        PickerStateStore store = new PickerStateStore(file, executor);
+        store.setDebounceDelay(DEBOUNCE_DELAY_MS);
+
+        FancyPickerLayout layout = createLayout();
+        store.bind(layout);
+        final List<String> notified = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            layout.getPickerItem(i).addOnFancyPickerItemChangeListener(new ItemChangeAdapter() {
+                @Override
+                public void onProgressChanged(FancyPickerItem pickerItem, float progress, boolean fromUser) {
+                    notified.add(pickerItem.getText() + ":" + (int) progress);
+                }
+            });
+        }
+
+        RestoreResult result = new RestoreResult();
+        store.restore(layout, result);
+        // Nothing is read on the calling thread.
+        assertNull(result.restored);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        runUiThreadTasks();
+
+        assertEquals(Boolean.TRUE, result.restored);
+        assertEquals(20, layout.getPickerItem(0).getProgress(), DELTA);
+        assertEquals(30, layout.getPickerItem(1).getProgress(), DELTA);
+        assertEquals(50, layout.getPickerItem(2).getProgress(), DELTA);
+
+        // App listeners see the restored values.
+        assertEquals(3, notified.size());
+        assertEquals("1:20", notified.get(0));
+        assertEquals("2:30", notified.get(1));
+        assertEquals("3:50", notified.get(2));
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(2 * DEBOUNCE_DELAY_MS);
+        assertEquals(0, executor.tasks.size());
+    }
+
+    private static class RestoreResult implements PickerStateStore.OnRestoreListener {
+        Boolean restored;
+
+        @Override
+        public void onRestored(boolean restored) {
+            this.restored = restored;
+        }
+    }
+
+    private abstract static class ItemChangeAdapter implements FancyPickerItem.OnFancyPickerItemChangeListener {
+        @Override
+        public void onStartTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(FancyPickerItem pickerItem) {
+        }
+
+        @Override
+        public void onEndTrackingAnimation(FancyPickerItem pickerItem) {
+        }
+    }
+
+    /**
+     * Change the progress the way the seek bar does while user drags it.
+     */
+    private void drag(FancyPickerItem item, float progress) {
+        item.onProgressChanged(item.getCircularSeekBar(), progress, true);
+    }
+
+    /**
+     * Run what the executor posted back to the layout.
+     */
+    private void runUiThreadTasks() {
+        Robolectric.getForegroundThreadScheduler().advanceBy(0);
+    }
+
+    private FancyPickerLayout createLayout() {
+        return PickerTestLayouts.createAttached(Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT);
+    }
+}
@@ -0,0 +1,51 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+import android.view.View;
+
+import org.robolectric.util.ActivityController;
+
+/**
+ * Build a {@link FancyPickerLayout} attached to a resumed activity, so the seek bars of items
+ * are added to the layout like in a real window.
+ */
+final class PickerTestLayouts {
+
+    private PickerTestLayouts() {
+    }
+
+    static FancyPickerLayout createAttached(ActivityController<Activity> controller, int itemCount) {
+        Activity activity = controller.get();
+
+        FancyPickerLayout layout = new FancyPickerLayout(activity);
+        for (int i = 0; i < itemCount; i++) {
+            FancyPickerItem item = new FancyPickerItem(activity);
+            item.setText(String.valueOf(i + 1));
+            layout.addView(item);
+        }
+
+        activity.setContentView(layout);
+        controller.start().resume().visible();
+
+        return layout;
+    }
+
+    /**
+     * Same as {@link #createAttached(ActivityController, int)}, then measured & laid out
+     * at {@code width} x {@code height}, ready to take touch events.
+     */
+    static FancyPickerLayout createLaidOut(ActivityController<Activity> controller, int itemCount,
+                                           int width, int height) {
+        FancyPickerLayout layout = createAttached(controller, itemCount);
+
+        // Items copy the seek bar circle during layout, which is only known after the seek bar
+        // itself has been laid out, so run the pass twice like a real first frame would.
+        for (int i = 0; i < 2; i++) {
+            layout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+            layout.layout(0, 0, width, height);
+        }
+
+        return layout;
+    }
+}
@@ -0,0 +1,62 @@
+package me.tankery.lib.fancypicker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ProgressConstraintsTest {
+
+    private static final float DELTA = 0.01f;
+
+    private static final float[] BUDGET_MINS = {0, 0, 0};
+    private static final float[] BUDGET_MAXS = {100, 100, 100};
+
+    @Test
+    public void siblingsShareTheDifferenceEqually() {
+        float[] values = {40, 30, 30};
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, new boolean[3], 0, true, 100);
+        assertArrayEquals(new float[] {40, 30, 30}, values, DELTA);
+
+        values[0] = 60;
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, new boolean[3], 0, true, 100);
+        assertArrayEquals(new float[] {60, 20, 20}, values, DELTA);
+    }
+
+    @Test
+    public void saturatedSiblingLeavesTheRestToOthers() {
+        float[] values = {70, 5, 25};
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, new boolean[3], 0, true, 100);
+        assertArrayEquals(new float[] {70, 5, 25}, values, DELTA);
+
+        values[0] = 90;
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, new boolean[3], 0, true, 100);
+        assertArrayEquals(new float[] {90, 0, 10}, values, DELTA);
+    }
+
+    @Test
+    public void lockedSiblingIsNotChanged() {
+        float[] values = {50, 30, 20};
+        boolean[] locks = {false, true, false};
+
+        values[0] = 60;
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, locks, 0, true, 100);
+        assertArrayEquals(new float[] {60, 30, 10}, values, DELTA);
+    }
+
+    @Test
+    public void draggedItemIsPulledBackWhenSiblingsAreExhausted() {
+        float[] values = {50, 30, 20};
+        boolean[] locks = {false, true, false};
+
+        values[0] = 90;
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, locks, 0, true, 100);
+        assertArrayEquals(new float[] {70, 30, 0}, values, DELTA);
+    }
+
+    @Test
+    public void rangeIsAppliedWithoutSum() {
+        float[] values = {-20, 120, 50};
+        ProgressConstraints.balance(values, BUDGET_MINS, BUDGET_MAXS, new boolean[3], 2, false, 0);
+        assertArrayEquals(new float[] {0, 100, 50}, values, DELTA);
+    }
+}
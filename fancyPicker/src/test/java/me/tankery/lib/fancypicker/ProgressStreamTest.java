@@ -0,0 +1,198 @@
+package me.tankery.lib.fancypicker;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressStreamTest {
+
+    private static final int ITEM_COUNT = 3;
+
+    /**
+     * Record the deliveries as "progress:value" / "settled:value".
+     */
+    private static class RecordingListener implements ProgressStream.OnProgressListener {
+        final List<String> deliveries = new ArrayList<>();
+        final List<FancyPickerItem> deliveredItems = new ArrayList<>();
+        boolean throwOnNext;
+
+        @Override
+        public void onProgress(FancyPickerItem pickerItem, float progress) {
+            if (throwOnNext) {
+                throwOnNext = false;
+                throw new IllegalStateException("Listener failure");
+            }
+            deliveries.add("progress:" + (int) progress);
+            deliveredItems.add(pickerItem);
+        }
+
+        @Override
+        public void onProgressSettled(FancyPickerItem pickerItem, float progress) {
+            deliveries.add("settled:" + (int) progress);
+            deliveredItems.add(pickerItem);
+        }
+    }
+
+    private FancyPickerLayout layout;
+    private FancyPickerItem item;
+    private QueuedExecutor executor;
+    private RecordingListener listener;
+    private ProgressStream stream;
+
+    @Before
+    public void setUp() {
+        layout = PickerTestLayouts.createAttached(Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT);
+        item = layout.getPickerItem(0);
+        executor = new QueuedExecutor();
+        listener = new RecordingListener();
+        stream = item.subscribeProgress(executor, listener);
+    }
+
+    @Test
+    public void queuedValuesAreConflatedToTheLatest() {
+        for (int i = 1; i <= 5; i++) {
+            drag(item, i * 10);
+        }
+
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(1, listener.deliveries.size());
+        assertEquals("progress:50", listener.deliveries.get(0));
+    }
+
+    @Test
+    public void settledIsDeliveredAfterProgress() {
+        drag(item, 30);
+        settle(item);
+
+        executor.runAll();
+
+        assertEquals(2, listener.deliveries.size());
+        assertEquals("progress:30", listener.deliveries.get(0));
+        assertEquals("settled:30", listener.deliveries.get(1));
+    }
+
+    @Test
+    public void cancelDropsPendingValues() {
+        drag(item, 10);
+        stream.cancel();
+
+        executor.runAll();
+
+        assertEquals(0, listener.deliveries.size());
+    }
+
+    @Test
+    public void throwingListenerDoesNotStallTheStream() {
+        listener.throwOnNext = true;
+        drag(item, 10);
+        try {
+            executor.runAll();
+            fail("Expected the listener failure");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+
+        drag(item, 20);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(1, listener.deliveries.size());
+        assertEquals("progress:20", listener.deliveries.get(0));
+    }
+
+    @Test
+    public void throwingListenerKeepsTheRestOfTheBatch() {
+        stream.cancel();
+        stream = layout.subscribeProgress(executor, listener);
+        FancyPickerItem sibling = layout.getPickerItem(1);
+
+        listener.throwOnNext = true;
+        drag(item, 10);
+        drag(sibling, 20);
+        try {
+            executor.runAll();
+            fail("Expected the listener failure");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+
+        // The value of sibling is put back and scheduled again, without a new change.
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(1, listener.deliveries.size());
+        assertEquals("progress:20", listener.deliveries.get(0));
+        assertSame(sibling, listener.deliveredItems.get(0));
+    }
+
+    @Test
+    public void rejectedDeliveryIsDroppedWithoutThrowing() {
+        executor.rejecting = true;
+        drag(item, 10);
+
+        executor.rejecting = false;
+        drag(item, 20);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(1, listener.deliveries.size());
+        assertEquals("progress:20", listener.deliveries.get(0));
+    }
+
+    @Test
+    public void layoutStreamDeliversReplayedDrag() throws Exception {
+        GestureTrace trace = GestureTrace.load("gestures/drag_slow.trace");
+        FancyPickerLayout laidOut = PickerTestLayouts.createLaidOut(
+                Robolectric.buildActivity(Activity.class).create(), ITEM_COUNT, trace.width, trace.height);
+        RecordingListener layoutListener = new RecordingListener();
+        laidOut.subscribeProgress(executor, layoutListener);
+
+        new GestureReplayer(laidOut).replay(trace);
+        // Let the end animation run, so the item settles.
+        Robolectric.flushForegroundThreadScheduler();
+
+        // The whole drag is conflated into the one delivery scheduled by its first change.
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        FancyPickerItem dragged = laidOut.getPickerItem(0);
+        int progress = (int) dragged.getProgress();
+        assertEquals(2, layoutListener.deliveries.size());
+        assertEquals("progress:" + progress, layoutListener.deliveries.get(0));
+        assertEquals("settled:" + progress, layoutListener.deliveries.get(1));
+        assertSame(dragged, layoutListener.deliveredItems.get(0));
+        assertSame(dragged, layoutListener.deliveredItems.get(1));
+    }
+
+    /**
+     * Change the progress the way the seek bar does while user drags it.
+     */
+    private void drag(FancyPickerItem pickerItem, float progress) {
+        pickerItem.onProgressChanged(pickerItem.getCircularSeekBar(), progress, true);
+    }
+
+    /**
+     * Release the item and let its end animation run.
+     */
+    private void settle(FancyPickerItem pickerItem) {
+        pickerItem.enableCircularSeekBar();
+        pickerItem.onStopTrackingTouch(pickerItem.getCircularSeekBar());
+        Robolectric.flushForegroundThreadScheduler();
+    }
+}
@@ -0,0 +1,29 @@
+package me.tankery.lib.fancypicker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor that only runs the tasks when asked, like a busy background thread.
+ * Set {@link #rejecting} to act like a shut down executor.
+ */
+class QueuedExecutor implements Executor {
+
+    final List<Runnable> tasks = new ArrayList<>();
+    boolean rejecting;
+
+    @Override
+    public void execute(Runnable command) {
+        if (rejecting)
+            throw new RejectedExecutionException("Executor is shut down");
+        tasks.add(command);
+    }
+
+    void runAll() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}